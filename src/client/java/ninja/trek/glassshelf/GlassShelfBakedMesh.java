@@ -0,0 +1,19 @@
+package ninja.trek.glassshelf;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.client.renderer.v1.mesh.Mesh;
+
+/**
+ * A shelf's baked item geometry, as handed to the chunk mesh builder through the block entity's render
+ * data. It carries the settings it was laid out with, so a section rebuilt after a config change or
+ * resource reload leaves out geometry that no longer matches rather than showing it stale.
+ */
+@Environment(EnvType.CLIENT)
+public record GlassShelfBakedMesh(Mesh mesh, boolean threeItemMode, int rendererGeneration) {
+	public boolean isCurrent() {
+		return GlassShelfConfig.bakeStaticItems
+			&& this.threeItemMode == GlassShelfConfig.threeItemMode
+			&& this.rendererGeneration == GlassShelfRenderer.latestGeneration();
+	}
+}
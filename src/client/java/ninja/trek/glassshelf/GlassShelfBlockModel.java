@@ -0,0 +1,54 @@
+package ninja.trek.glassshelf;
+
+import java.util.List;
+import java.util.function.Predicate;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.client.renderer.v1.mesh.QuadEmitter;
+import net.minecraft.client.renderer.block.model.BlockModelPart;
+import net.minecraft.client.renderer.block.model.BlockStateModel;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.BlockAndTintGetter;
+import net.minecraft.world.level.block.state.BlockState;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Wraps the shelf's block model so the section mesh also carries any items baked by
+ * {@link GlassShelfMeshBaker}, read from the block entity's render data.
+ */
+@Environment(EnvType.CLIENT)
+public class GlassShelfBlockModel implements BlockStateModel {
+	private final BlockStateModel wrapped;
+
+	public GlassShelfBlockModel(BlockStateModel wrapped) {
+		this.wrapped = wrapped;
+	}
+
+	@Override
+	public void collectParts(RandomSource random, List<BlockModelPart> parts) {
+		this.wrapped.collectParts(random, parts);
+	}
+
+	@Override
+	public TextureAtlasSprite particleIcon() {
+		return this.wrapped.particleIcon();
+	}
+
+	@Override
+	public void emitQuads(QuadEmitter emitter, BlockAndTintGetter blockView, BlockPos pos, BlockState state, RandomSource random, Predicate<@Nullable Direction> cullTest) {
+		this.wrapped.emitQuads(emitter, blockView, pos, state, random, cullTest);
+		if (blockView.getBlockEntityRenderData(pos) instanceof GlassShelfBakedMesh baked && baked.isCurrent()) {
+			baked.mesh().outputTo(emitter);
+		}
+	}
+
+	@Nullable
+	@Override
+	public Object createGeometryKey(BlockAndTintGetter blockView, BlockPos pos, BlockState state, RandomSource random) {
+		// The geometry depends on the shelf's contents, so it must never be shared between positions.
+		return null;
+	}
+}
@@ -1,7 +1,10 @@
 package ninja.trek.glassshelf;
 
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.model.loading.v1.ModelLoadingPlugin;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.fabricmc.fabric.api.client.rendering.v1.BlockRenderLayerMap;
+import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.client.renderer.blockentity.BlockEntityRenderers;
 import net.minecraft.client.renderer.chunk.ChunkSectionLayer;
 
@@ -10,6 +13,17 @@ public class GlassShelfClient implements ClientModInitializer {
 	public void onInitializeClient() {
 		GlassShelfConfig.load();
 		BlockEntityRenderers.register(GlassShelf.GLASS_SHELF_BLOCK_ENTITY, GlassShelfRenderer::new);
+		ModelLoadingPlugin.register(context -> context.modifyBlockModelAfterBake().register((model, modelContext) ->
+			modelContext.state().getBlock() instanceof GlassShelfBlock ? new GlassShelfBlockModel(model) : model));
+		ClientPlayNetworking.registerGlobalReceiver(ShelfDisplayPayload.TYPE, (payload, context) -> {
+			ClientLevel level = context.client().level;
+			if (level == null) return;
+			for (ShelfDisplayPayload.Entry entry : payload.entries()) {
+				if (level.getBlockEntity(entry.pos(payload.chunkPos())) instanceof GlassShelfBlockEntity shelf) {
+					shelf.applyDisplayDelta(entry.changedMask(), entry.itemIds());
+				}
+			}
+		});
 
 		BlockRenderLayerMap.putBlock(GlassShelf.GLASS_SHELF_BLOCK, ChunkSectionLayer.CUTOUT);
 		BlockRenderLayerMap.putBlock(GlassShelf.OAK_GLASS_SHELF_BLOCK, ChunkSectionLayer.CUTOUT);
@@ -14,11 +14,22 @@ import java.nio.file.Path;
 public class GlassShelfConfig {
 	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
 	private static final Path CONFIG_PATH = FabricLoader.getInstance().getConfigDir().resolve("glass-shelf.json");
+	public static final int MIN_TOP_ITEM_DISTANCE = 8;
 
 	public static boolean threeItemMode = false;
+	// Level-of-detail tiers, in blocks from the camera: full models, then flat sprites, then only the top item.
+	public static int fullDetailDistance = 16;
+	public static int spriteDistance = 32;
+	public static int topItemDistance = 48;
+	// Emit static item models into the chunk section mesh instead of drawing them every frame.
+	public static boolean bakeStaticItems = false;
 
 	private static class Data {
 		boolean threeItemMode = false;
+		int fullDetailDistance = 16;
+		int spriteDistance = 32;
+		int topItemDistance = 48;
+		boolean bakeStaticItems = false;
 	}
 
 	public static void load() {
@@ -28,6 +39,11 @@ public class GlassShelfConfig {
 				Data data = GSON.fromJson(json, Data.class);
 				if (data != null) {
 					threeItemMode = data.threeItemMode;
+					fullDetailDistance = data.fullDetailDistance;
+					spriteDistance = data.spriteDistance;
+					topItemDistance = data.topItemDistance;
+					clampDistances();
+					bakeStaticItems = data.bakeStaticItems;
 				}
 			} catch (IOException | com.google.gson.JsonSyntaxException e) {
 				GlassShelf.LOGGER.warn("Failed to load glass-shelf config", e);
@@ -35,9 +51,23 @@ public class GlassShelfConfig {
 		}
 	}
 
+	/**
+	 * Keeps the detail tiers ordered (full, then sprite, then top item) and the outermost one visible.
+	 */
+	public static void clampDistances() {
+		fullDetailDistance = Math.max(0, fullDetailDistance);
+		spriteDistance = Math.max(fullDetailDistance, spriteDistance);
+		topItemDistance = Math.max(Math.max(MIN_TOP_ITEM_DISTANCE, spriteDistance), topItemDistance);
+	}
+
 	public static void save() {
+		clampDistances();
 		Data data = new Data();
 		data.threeItemMode = threeItemMode;
+		data.fullDetailDistance = fullDetailDistance;
+		data.spriteDistance = spriteDistance;
+		data.topItemDistance = topItemDistance;
+		data.bakeStaticItems = bakeStaticItems;
 		try {
 			Files.writeString(CONFIG_PATH, GSON.toJson(data));
 		} catch (IOException e) {
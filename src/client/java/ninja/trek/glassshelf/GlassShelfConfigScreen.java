@@ -1,5 +1,8 @@
 package ninja.trek.glassshelf;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.client.gui.components.Button;
@@ -10,7 +13,10 @@ import net.minecraft.network.chat.Component;
 
 @Environment(EnvType.CLIENT)
 public class GlassShelfConfigScreen extends Screen {
+	private static final List<Integer> DISTANCES = List.of(0, 8, 12, 16, 24, 32, 48, 64, 96, 128);
 	private final Screen parent;
+	private final boolean initialThreeItemMode = GlassShelfConfig.threeItemMode;
+	private final boolean initialBakeStaticItems = GlassShelfConfig.bakeStaticItems;
 
 	public GlassShelfConfigScreen(Screen parent) {
 		super(Component.translatable("glass-shelf.config.title"));
@@ -19,16 +25,79 @@ public class GlassShelfConfigScreen extends Screen {
 
 	@Override
 	protected void init() {
+		int x = this.width / 2 - 100;
+		int y = this.height / 2 - 60;
 		CycleButton<Boolean> modeButton = CycleButton.onOffBuilder(GlassShelfConfig.threeItemMode)
-			.create(this.width / 2 - 100, this.height / 2 - 12, 200, 20,
+			.create(x, y, 200, 20,
 				Component.translatable("glass-shelf.config.three_item_mode"),
 				(button, value) -> GlassShelfConfig.threeItemMode = value);
 		this.addRenderableWidget(modeButton);
 
+		// Moving one tier drags the others along so they stay ordered, then the buttons are rebuilt to show it.
+		this.addRenderableWidget(this.distanceButton(x, y + 24, "glass-shelf.config.full_detail_distance",
+			GlassShelfConfig.fullDetailDistance, 0, value -> {
+				GlassShelfConfig.fullDetailDistance = value;
+				GlassShelfConfig.clampDistances();
+			}));
+		this.addRenderableWidget(this.distanceButton(x, y + 48, "glass-shelf.config.sprite_distance",
+			GlassShelfConfig.spriteDistance, 0, value -> {
+				GlassShelfConfig.spriteDistance = value;
+				GlassShelfConfig.fullDetailDistance = Math.min(GlassShelfConfig.fullDetailDistance, value);
+				GlassShelfConfig.clampDistances();
+			}));
+		this.addRenderableWidget(this.distanceButton(x, y + 72, "glass-shelf.config.top_item_distance",
+			GlassShelfConfig.topItemDistance, GlassShelfConfig.MIN_TOP_ITEM_DISTANCE, value -> {
+				GlassShelfConfig.topItemDistance = value;
+				GlassShelfConfig.spriteDistance = Math.min(GlassShelfConfig.spriteDistance, value);
+				GlassShelfConfig.fullDetailDistance = Math.min(GlassShelfConfig.fullDetailDistance, value);
+				GlassShelfConfig.clampDistances();
+			}));
+		this.addRenderableWidget(CycleButton.onOffBuilder(GlassShelfConfig.bakeStaticItems)
+			.create(x, y + 96, 200, 20,
+				Component.translatable("glass-shelf.config.bake_static_items"),
+				(button, value) -> GlassShelfConfig.bakeStaticItems = value));
+
 		this.addRenderableWidget(Button.builder(CommonComponents.GUI_DONE, button -> {
 			GlassShelfConfig.save();
 			this.minecraft.setScreen(this.parent);
-		}).bounds(this.width / 2 - 100, this.height / 2 + 24, 200, 20).build());
+		}).bounds(x, y + 132, 200, 20).build());
+	}
+
+	private CycleButton<Integer> distanceButton(int x, int y, String key, int initial, int min, IntConsumer setter) {
+		return CycleButton.<Integer>builder(value -> Component.translatable("glass-shelf.config.blocks", value))
+			.withValues(distanceOptions(initial, min))
+			.withInitialValue(initial)
+			.create(x, y, 200, 20, Component.translatable(key), (button, value) -> {
+				setter.accept(value);
+				this.rebuildWidgets();
+			});
+	}
+
+	/**
+	 * The preset distances from {@code min} up, plus the current value if it was hand-edited to something else.
+	 */
+	private static List<Integer> distanceOptions(int current, int min) {
+		List<Integer> options = new ArrayList<>();
+		for (int distance : DISTANCES) {
+			if (distance >= min) {
+				options.add(distance);
+			}
+		}
+		if (!options.contains(current)) {
+			options.add(current);
+			options.sort(null);
+		}
+		return options;
+	}
+
+	@Override
+	public void removed() {
+		// Baked shelf geometry sits in every section mesh that has shelves; rebuild them all so none keep
+		// items laid out for the old settings.
+		if ((GlassShelfConfig.threeItemMode != this.initialThreeItemMode || GlassShelfConfig.bakeStaticItems != this.initialBakeStaticItems)
+			&& this.minecraft.level != null) {
+			this.minecraft.levelRenderer.allChanged();
+		}
 	}
 
 	@Override
@@ -0,0 +1,119 @@
+package ninja.trek.glassshelf;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+import java.util.List;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.client.renderer.v1.Renderer;
+import net.fabricmc.fabric.api.client.renderer.v1.mesh.Mesh;
+import net.fabricmc.fabric.api.client.renderer.v1.mesh.MutableMesh;
+import net.fabricmc.fabric.api.client.renderer.v1.mesh.QuadEmitter;
+import net.minecraft.client.renderer.Sheets;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.chunk.ChunkSectionLayer;
+import net.minecraft.client.renderer.item.ItemStackRenderState;
+import net.minecraft.client.renderer.texture.TextureAtlas;
+import net.minecraft.core.Direction;
+import net.minecraft.util.ARGB;
+import ninja.trek.glassshelf.mixin.client.ItemStackRenderStateAccessor;
+import ninja.trek.glassshelf.mixin.client.LayerRenderStateAccessor;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Turns a shelf's resolved item models into a mesh for its chunk section. Only plain quad models on the
+ * block atlas qualify; special renderers, glint, translucent layers and animated models stay with
+ * {@link GlassShelfRenderer}.
+ */
+@Environment(EnvType.CLIENT)
+public class GlassShelfMeshBaker {
+	/**
+	 * Bakes every qualifying item in the cache and records them in its bakedMask.
+	 *
+	 * @return the mesh, or null when no item qualified
+	 */
+	@Nullable
+	public static Mesh bake(GlassShelfRenderCache cache, Direction facing, boolean threeItemMode) {
+		MutableMesh mesh = Renderer.get().mutableMesh();
+		QuadEmitter emitter = mesh.emitter();
+		PoseStack poseStack = new PoseStack();
+		Vector3f vector = new Vector3f();
+		int bakedMask = 0;
+
+		for (int i = 0; i < cache.displayCount; i++) {
+			if ((cache.animatedMask & (1 << i)) != 0 || !isStatic(cache.items[i])) continue;
+			poseStack.pushPose();
+			poseStack.mulPose(GlassShelfRenderer.itemTransform(facing, GlassShelfRenderer.gridPosition(i, threeItemMode)));
+			poseStack.translate(0.0F, cache.yOffsets[i], 0.0F);
+			emitItem(cache.items[i], poseStack, emitter, vector);
+			poseStack.popPose();
+			bakedMask |= 1 << i;
+		}
+		cache.bakedMask = bakedMask;
+		return bakedMask == 0 ? null : mesh.immutableCopy();
+	}
+
+	private static boolean isStatic(ItemStackRenderState itemState) {
+		ItemStackRenderStateAccessor accessor = (ItemStackRenderStateAccessor) itemState;
+		int layerCount = accessor.glassShelf$getActiveLayerCount();
+		if (layerCount == 0) return false;
+		ItemStackRenderState.LayerRenderState[] layers = accessor.glassShelf$getLayers();
+		for (int i = 0; i < layerCount; i++) {
+			LayerRenderStateAccessor layer = (LayerRenderStateAccessor) layers[i];
+			if (layer.glassShelf$getSpecialRenderer() != null
+				|| layer.glassShelf$getFoilType() != ItemStackRenderState.FoilType.NONE
+				|| layer.glassShelf$getRenderType() == Sheets.translucentItemSheet()) {
+				return false;
+			}
+			List<BakedQuad> quads = layer.glassShelf$getQuads();
+			for (int q = 0; q < quads.size(); q++) {
+				// Section meshes only sample the block atlas.
+				if (!TextureAtlas.LOCATION_BLOCKS.equals(quads.get(q).sprite().atlasLocation())) return false;
+			}
+		}
+		return true;
+	}
+
+	private static void emitItem(ItemStackRenderState itemState, PoseStack poseStack, QuadEmitter emitter, Vector3f vector) {
+		ItemStackRenderStateAccessor accessor = (ItemStackRenderStateAccessor) itemState;
+		ItemStackRenderState.LayerRenderState[] layers = accessor.glassShelf$getLayers();
+		for (int i = 0; i < accessor.glassShelf$getActiveLayerCount(); i++) {
+			LayerRenderStateAccessor layer = (LayerRenderStateAccessor) layers[i];
+			int[] tints = layer.glassShelf$getTintLayers();
+			// Same transform chain as LayerRenderState.submit.
+			poseStack.pushPose();
+			layer.glassShelf$getTransform().apply(false, poseStack.last());
+			poseStack.translate(-0.5F, -0.5F, -0.5F);
+			PoseStack.Pose pose = poseStack.last();
+			Matrix4f matrix = pose.pose();
+
+			List<BakedQuad> quads = layer.glassShelf$getQuads();
+			for (int q = 0; q < quads.size(); q++) {
+				emitter.fromBakedQuad(quads.get(q));
+				for (int v = 0; v < 4; v++) {
+					matrix.transformPosition(vector.set(emitter.x(v), emitter.y(v), emitter.z(v)));
+					emitter.pos(v, vector.x, vector.y, vector.z);
+					if (emitter.copyNormal(v, vector) != null) {
+						pose.normal().transform(vector).normalize();
+						emitter.normal(v, vector.x, vector.y, vector.z);
+					}
+				}
+				// Shelf blocks have no tint of their own, so item tints are resolved here.
+				int tintIndex = emitter.tintIndex();
+				if (tintIndex >= 0) {
+					int tint = tintIndex < tints.length ? tints[tintIndex] : -1;
+					for (int v = 0; v < 4; v++) {
+						emitter.color(v, ARGB.multiply(emitter.color(v), tint));
+					}
+					emitter.tintIndex(-1);
+				}
+				emitter.cullFace(null);
+				emitter.nominalFace(null);
+				emitter.renderLayer(ChunkSectionLayer.CUTOUT);
+				emitter.emit();
+			}
+			poseStack.popPose();
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package ninja.trek.glassshelf;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.renderer.item.TrackingItemStackRenderState;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Resolved item models for one shelf, kept on the block entity between frames. Only valid for the
+ * display version, item mode, baking mode and renderer instance it was built with; renderers are recreated on
+ * resource reload, so a new renderer never trusts an older one's models.
+ */
+@Environment(EnvType.CLIENT)
+public class GlassShelfRenderCache {
+	// Tracking states, so the renderer can see which models picked their sub-model from a property.
+	public final TrackingItemStackRenderState[] items = new TrackingItemStackRenderState[GlassShelfBlockEntity.MAX_DISPLAY_ITEMS];
+	// Particle sprite of each item, drawn instead of the model at sprite detail.
+	public final @Nullable TextureAtlasSprite[] sprites = new TextureAtlasSprite[GlassShelfBlockEntity.MAX_DISPLAY_ITEMS];
+	// Vertical offset that centres each model on its slot, taken from its bounding box.
+	public final float[] yOffsets = new float[GlassShelfBlockEntity.MAX_DISPLAY_ITEMS];
+	// Display slot each resolved item came from, for its model seed.
+	public final int[] slots = new int[GlassShelfBlockEntity.MAX_DISPLAY_ITEMS];
+	public int displayCount;
+	// Items with animated textures or property-driven models (clocks, compasses), resolved again every frame.
+	public int animatedMask;
+	// Items emitted into the chunk section mesh, which the renderer skips.
+	public int bakedMask;
+	public int displayVersion = -1;
+	public boolean threeItemMode;
+	public boolean bakeStaticItems;
+	public int rendererGeneration = -1;
+
+	{
+		for (int i = 0; i < items.length; i++) {
+			items[i] = new TrackingItemStackRenderState();
+		}
+	}
+
+	public boolean isValid(int displayVersion, boolean threeItemMode, boolean bakeStaticItems, int rendererGeneration) {
+		return this.displayVersion == displayVersion
+			&& this.threeItemMode == threeItemMode
+			&& this.bakeStaticItems == bakeStaticItems
+			&& this.rendererGeneration == rendererGeneration;
+	}
+}
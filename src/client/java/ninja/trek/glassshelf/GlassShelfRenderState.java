@@ -4,16 +4,23 @@ import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.client.renderer.blockentity.state.BlockEntityRenderState;
 import net.minecraft.client.renderer.item.ItemStackRenderState;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import org.jspecify.annotations.Nullable;
 
 @Environment(EnvType.CLIENT)
 public class GlassShelfRenderState extends BlockEntityRenderState {
-	public final ItemStackRenderState[] items = new ItemStackRenderState[9];
+	// Borrowed from the shelf's GlassShelfRenderCache rather than resolved again every frame.
+	public ItemStackRenderState[] items;
+	public @Nullable TextureAtlasSprite[] sprites;
+	public float[] yOffsets;
+	public Detail detail = Detail.FULL;
 	public int displayCount;
+	public int bakedMask;
 	public boolean threeItemMode;
 
-	{
-		for (int i = 0; i < items.length; i++) {
-			items[i] = new ItemStackRenderState();
-		}
+	public enum Detail {
+		FULL,
+		SPRITE,
+		TOP_ITEM
 	}
 }
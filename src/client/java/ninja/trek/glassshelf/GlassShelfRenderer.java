@@ -1,33 +1,58 @@
 package ninja.trek.glassshelf;
 
 import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexConsumer;
 import com.mojang.math.Axis;
 import it.unimi.dsi.fastutil.HashCommon;
+import java.util.List;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.client.renderer.v1.mesh.Mesh;
 import net.minecraft.client.renderer.SubmitNodeCollector;
 import net.minecraft.client.renderer.blockentity.BlockEntityRenderer;
 import net.minecraft.client.renderer.blockentity.BlockEntityRendererProvider;
 import net.minecraft.client.renderer.feature.ModelFeatureRenderer;
 import net.minecraft.client.renderer.item.ItemModelResolver;
-import net.minecraft.client.renderer.item.ItemStackRenderState;
+import net.minecraft.client.renderer.item.TrackingItemStackRenderState;
+import net.minecraft.client.renderer.rendertype.RenderTypes;
 import net.minecraft.client.renderer.state.CameraRenderState;
 import net.minecraft.client.renderer.texture.OverlayTexture;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.core.NonNullList;
+import net.minecraft.util.RandomSource;
 import net.minecraft.world.item.ItemDisplayContext;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.phys.AABB;
 import net.minecraft.world.phys.Vec3;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
 import org.jspecify.annotations.Nullable;
 
 @Environment(EnvType.CLIENT)
 public class GlassShelfRenderer implements BlockEntityRenderer<GlassShelfBlockEntity, GlassShelfRenderState> {
 	private static final float ITEM_SIZE = 0.2F;
+	private static final Matrix4fc[][] ITEM_TRANSFORMS = createItemTransforms();
+	// Renderers are rebuilt on every resource reload, so each instance marks one generation of models.
+	private static int nextGeneration;
+	// Read by chunk mesh builder threads through GlassShelfBakedMesh.
+	private static volatile int latestGeneration = -1;
 	private final ItemModelResolver itemModelResolver;
+	private final RandomSource random = RandomSource.create();
+	private final int generation;
 
 	public GlassShelfRenderer(BlockEntityRendererProvider.Context context) {
 		this.itemModelResolver = context.itemModelResolver();
+		this.generation = nextGeneration++;
+		latestGeneration = this.generation;
+	}
+
+	public static int latestGeneration() {
+		return latestGeneration;
 	}
 
 	public GlassShelfRenderState createRenderState() {
@@ -38,61 +63,211 @@ public class GlassShelfRenderer implements BlockEntityRenderer<GlassShelfBlockEn
 		GlassShelfBlockEntity entity, GlassShelfRenderState state, float partialTick, Vec3 cameraPos, ModelFeatureRenderer.@Nullable CrumblingOverlay crumblingOverlay
 	) {
 		BlockEntityRenderer.super.extractRenderState(entity, state, partialTick, cameraPos, crumblingOverlay);
-		NonNullList<ItemStack> displayItems = entity.getDisplayItems();
-		int seed = HashCommon.long2int(entity.getBlockPos().asLong());
+		if (isViewedFromBehind(entity, cameraPos)) {
+			state.displayCount = 0;
+			return;
+		}
+		double distanceSqr = cameraPos.distanceToSqr(entity.getBlockPos().getCenter());
+		if (withinSqr(distanceSqr, GlassShelfConfig.fullDetailDistance)) {
+			state.detail = GlassShelfRenderState.Detail.FULL;
+		} else if (withinSqr(distanceSqr, GlassShelfConfig.spriteDistance)) {
+			state.detail = GlassShelfRenderState.Detail.SPRITE;
+		} else if (withinSqr(distanceSqr, GlassShelfConfig.topItemDistance)) {
+			state.detail = GlassShelfRenderState.Detail.TOP_ITEM;
+		} else {
+			state.displayCount = 0;
+			return;
+		}
 
 		boolean threeItem = GlassShelfConfig.threeItemMode;
+		GlassShelfRenderCache cache = entity.getRenderCache() instanceof GlassShelfRenderCache existing ? existing : null;
+		if (cache == null) {
+			cache = new GlassShelfRenderCache();
+			entity.setRenderCache(cache);
+		}
+
+		int seed = HashCommon.long2int(entity.getBlockPos().asLong());
+		NonNullList<ItemStack> displayItems = entity.getDisplayItems();
+		boolean bake = GlassShelfConfig.bakeStaticItems;
+		if (!cache.isValid(entity.getDisplayVersion(), threeItem, bake, this.generation)) {
+			this.resolveAll(entity, cache, displayItems, seed, threeItem);
+			cache.bakeStaticItems = bake;
+			this.updateBakedMesh(entity, cache, threeItem, bake);
+		} else {
+			for (int mask = cache.animatedMask; mask != 0; mask &= mask - 1) {
+				int i = Integer.numberOfTrailingZeros(mask);
+				this.resolve(entity, cache, i, displayItems.get(cache.slots[i]), seed + cache.slots[i]);
+			}
+		}
+
 		state.threeItemMode = threeItem;
+		state.items = cache.items;
+		state.sprites = cache.sprites;
+		state.yOffsets = cache.yOffsets;
+		state.bakedMask = cache.bakedMask;
+		state.displayCount = state.detail == GlassShelfRenderState.Detail.TOP_ITEM ? Math.min(1, cache.displayCount) : cache.displayCount;
+	}
+
+	/**
+	 * Hands the shelf's static items to the chunk mesh, or takes them back, and has the section rebuilt
+	 * whenever that geometry changes.
+	 */
+	private void updateBakedMesh(GlassShelfBlockEntity entity, GlassShelfRenderCache cache, boolean threeItem, boolean bake) {
+		GlassShelfBakedMesh baked = null;
+		cache.bakedMask = 0;
+		if (bake) {
+			Mesh mesh = GlassShelfMeshBaker.bake(cache, entity.getBlockState().getValue(GlassShelfBlock.FACING), threeItem);
+			if (mesh != null) {
+				baked = new GlassShelfBakedMesh(mesh, threeItem, this.generation);
+			}
+		}
+		if (baked == null && entity.getRenderData() == null) return;
+		entity.setRenderData(baked);
+		Level level = entity.getLevel();
+		if (level != null) {
+			BlockState blockState = entity.getBlockState();
+			level.sendBlockUpdated(entity.getBlockPos(), blockState, blockState, Block.UPDATE_CLIENTS);
+		}
+	}
+
+	/**
+	 * Items sit against the back of the shelf, so a camera on or behind the plane of its back face can't
+	 * see any of them.
+	 */
+	private static boolean isViewedFromBehind(GlassShelfBlockEntity entity, Vec3 cameraPos) {
+		Direction facing = entity.getBlockState().getValue(GlassShelfBlock.FACING);
+		BlockPos pos = entity.getBlockPos();
+		double front = (cameraPos.x - (pos.getX() + 0.5)) * facing.getStepX()
+			+ (cameraPos.z - (pos.getZ() + 0.5)) * facing.getStepZ();
+		return front + 0.5 <= 0.0;
+	}
+
+	private static boolean withinSqr(double distanceSqr, int distance) {
+		return distanceSqr <= (double)distance * distance;
+	}
+
+	@Override
+	public int getViewDistance() {
+		return Math.max(GlassShelfConfig.topItemDistance, Math.max(GlassShelfConfig.spriteDistance, GlassShelfConfig.fullDetailDistance));
+	}
+
+	private void resolve(GlassShelfBlockEntity entity, GlassShelfRenderCache cache, int index, ItemStack itemStack, int seed) {
+		TrackingItemStackRenderState itemState = cache.items[index];
+		this.itemModelResolver.updateForTopItem(itemState, itemStack, ItemDisplayContext.ON_SHELF, entity.level(), entity, seed);
+		this.random.setSeed(seed);
+		cache.sprites[index] = itemState.pickParticleIcon(this.random);
+		// Centre the model vertically on its slot.
+		AABB box = itemState.getModelBoundingBox();
+		cache.yOffsets[index] = (float)(-box.minY - (box.maxY - box.minY) / 2.0);
+	}
+
+	private void resolveAll(GlassShelfBlockEntity entity, GlassShelfRenderCache cache, NonNullList<ItemStack> displayItems, int seed, boolean threeItem) {
 		int maxItems = threeItem ? 3 : 9;
 		int count = 0;
+		int animatedMask = 0;
 
 		for (int i = 0; i < displayItems.size() && count < maxItems; i++) {
 			ItemStack itemStack = displayItems.get(i);
 			if (!itemStack.isEmpty()) {
-				this.itemModelResolver.updateForTopItem(state.items[count], itemStack, ItemDisplayContext.ON_SHELF, entity.level(), entity, seed + i);
+				this.resolve(entity, cache, count, itemStack, seed + i);
+				if (isDynamic(cache.items[count])) {
+					animatedMask |= 1 << count;
+				}
+				cache.slots[count] = i;
 				count++;
 			}
 		}
-		state.displayCount = count;
+		cache.displayCount = count;
+		cache.animatedMask = animatedMask;
+		cache.displayVersion = entity.getDisplayVersion();
+		cache.threeItemMode = threeItem;
+		cache.rendererGeneration = this.generation;
+	}
+
+	/**
+	 * Select, range and condition models (clocks, compasses, recovery compasses) add themselves to the
+	 * model identity ahead of the model they picked, and that pick can change with time or position.
+	 * A plain model's identity is the model alone.
+	 */
+	private static boolean isDynamic(TrackingItemStackRenderState itemState) {
+		return itemState.isAnimated()
+			|| !(itemState.getModelIdentity() instanceof List<?> identity)
+			|| identity.size() > 1;
 	}
 
 	public void submit(GlassShelfRenderState state, PoseStack poseStack, SubmitNodeCollector collector, CameraRenderState camera) {
-		Direction direction = (Direction)state.blockState.getValue(GlassShelfBlock.FACING);
-		float rotation = direction.getAxis().isHorizontal() ? -direction.toYRot() : 180.0F;
+		Direction facing = state.blockState.getValue(GlassShelfBlock.FACING);
 
 		for (int i = 0; i < state.displayCount; i++) {
-			ItemStackRenderState itemState = state.items[i];
-			int col, row;
-			if (state.threeItemMode) {
-				col = i;
-				row = 1;
-			} else {
-				col = i % 3;
-				row = i / 3;
-			}
-			submitItem(state, itemState, poseStack, collector, col, row, rotation);
+			if ((state.bakedMask & (1 << i)) != 0) continue;
+			int position = state.detail == GlassShelfRenderState.Detail.TOP_ITEM ? 4 : gridPosition(i, state.threeItemMode);
+			submitItem(state, i, poseStack, collector, itemTransform(facing, position));
 		}
 	}
 
-	private void submitItem(
-		GlassShelfRenderState state, ItemStackRenderState itemState, PoseStack poseStack, SubmitNodeCollector collector,
-		int col, int row, float rotation
-	) {
-		float x = (col - 1) * 0.25F;
-		float y = (1 - row) * 0.34375F;
-		float z = -0.375F;
+	static int gridPosition(int index, boolean threeItemMode) {
+		return threeItemMode ? 3 + index : index;
+	}
 
-		poseStack.pushPose();
-		poseStack.translate(0.5F, 0.5F, 0.5F);
-		poseStack.mulPose(Axis.YP.rotationDegrees(rotation));
-		poseStack.translate(x, y, z);
-		poseStack.scale(ITEM_SIZE, ITEM_SIZE, ITEM_SIZE);
+	static Matrix4fc itemTransform(Direction facing, int position) {
+		return ITEM_TRANSFORMS[facing.get2DDataValue()][position];
+	}
 
-		AABB box = itemState.getModelBoundingBox();
-		double yOffset = -box.minY + -(box.maxY - box.minY) / 2.0;
-		poseStack.translate(0.0, yOffset, 0.0);
+	private void submitItem(GlassShelfRenderState state, int index, PoseStack poseStack, SubmitNodeCollector collector, Matrix4fc transform) {
+		poseStack.pushPose();
+		poseStack.mulPose(transform);
 
-		itemState.submit(poseStack, collector, state.lightCoords, OverlayTexture.NO_OVERLAY, 0);
+		if (state.detail == GlassShelfRenderState.Detail.FULL) {
+			poseStack.translate(0.0F, state.yOffsets[index], 0.0F);
+			state.items[index].submit(poseStack, collector, state.lightCoords, OverlayTexture.NO_OVERLAY, 0);
+		} else {
+			TextureAtlasSprite sprite = state.sprites[index];
+			if (sprite != null) {
+				submitSprite(sprite, poseStack, collector, state.lightCoords);
+			}
+		}
 		poseStack.popPose();
 	}
+
+	/**
+	 * Block-space transform for each horizontal facing (by 2D data value) and each of the nine grid
+	 * positions, row-major from the top left. Three-item mode uses the middle row.
+	 */
+	private static Matrix4fc[][] createItemTransforms() {
+		Matrix4fc[][] transforms = new Matrix4fc[4][9];
+		for (int facing = 0; facing < 4; facing++) {
+			float rotation = -Direction.from2DDataValue(facing).toYRot();
+			for (int position = 0; position < 9; position++) {
+				int col = position % 3;
+				int row = position / 3;
+				transforms[facing][position] = new Matrix4f()
+					.translation(0.5F, 0.5F, 0.5F)
+					.rotate(Axis.YP.rotationDegrees(rotation))
+					.translate((col - 1) * 0.25F, (1 - row) * 0.34375F, -0.375F)
+					.scale(ITEM_SIZE);
+			}
+		}
+		return transforms;
+	}
+
+	/**
+	 * Distant items are drawn as a single flat quad of their particle sprite, facing out of the shelf.
+	 */
+	private static void submitSprite(TextureAtlasSprite sprite, PoseStack poseStack, SubmitNodeCollector collector, int light) {
+		collector.submitCustomGeometry(poseStack, RenderTypes.entityCutoutNoCull(sprite.atlasLocation()), (pose, consumer) -> {
+			spriteVertex(consumer, pose, -0.5F, -0.5F, sprite.getU0(), sprite.getV1(), light);
+			spriteVertex(consumer, pose, 0.5F, -0.5F, sprite.getU1(), sprite.getV1(), light);
+			spriteVertex(consumer, pose, 0.5F, 0.5F, sprite.getU1(), sprite.getV0(), light);
+			spriteVertex(consumer, pose, -0.5F, 0.5F, sprite.getU0(), sprite.getV0(), light);
+		});
+	}
+
+	private static void spriteVertex(VertexConsumer consumer, PoseStack.Pose pose, float x, float y, float u, float v, int light) {
+		consumer.addVertex(pose, x, y, 0.0F)
+			.setColor(-1)
+			.setUv(u, v)
+			.setOverlay(OverlayTexture.NO_OVERLAY)
+			.setLight(light)
+			.setNormal(pose, 0.0F, 0.0F, 1.0F);
+	}
 }
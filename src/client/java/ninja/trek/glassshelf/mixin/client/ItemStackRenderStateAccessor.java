@@ -0,0 +1,14 @@
+package ninja.trek.glassshelf.mixin.client;
+
+import net.minecraft.client.renderer.item.ItemStackRenderState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(ItemStackRenderState.class)
+public interface ItemStackRenderStateAccessor {
+	@Accessor("activeLayerCount")
+	int glassShelf$getActiveLayerCount();
+
+	@Accessor("layers")
+	ItemStackRenderState.LayerRenderState[] glassShelf$getLayers();
+}
@@ -0,0 +1,34 @@
+package ninja.trek.glassshelf.mixin.client;
+
+import java.util.List;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.block.model.ItemTransform;
+import net.minecraft.client.renderer.item.ItemStackRenderState;
+import net.minecraft.client.renderer.rendertype.RenderType;
+import net.minecraft.client.renderer.special.SpecialModelRenderer;
+import org.jspecify.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(ItemStackRenderState.LayerRenderState.class)
+public interface LayerRenderStateAccessor {
+	@Accessor("quads")
+	List<BakedQuad> glassShelf$getQuads();
+
+	@Accessor("transform")
+	ItemTransform glassShelf$getTransform();
+
+	@Accessor("renderType")
+	@Nullable
+	RenderType glassShelf$getRenderType();
+
+	@Accessor("foilType")
+	ItemStackRenderState.FoilType glassShelf$getFoilType();
+
+	@Accessor("tintLayers")
+	int[] glassShelf$getTintLayers();
+
+	@Accessor("specialRenderer")
+	@Nullable
+	SpecialModelRenderer<Object> glassShelf$getSpecialRenderer();
+}
@@ -0,0 +1,171 @@
+package ninja.trek.glassshelf;
+
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.Reference2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import net.minecraft.world.Container;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Running per-item totals for one tracked container, plus its current top items by count.
+ * <p>
+ * Vanilla grows and shrinks stacks in place, so there is no reliable old/new notification per slot.
+ * Instead each update diffs the container against a per-slot shadow copy and only feeds the slots that
+ * differ into the totals. The ranking is only rebuilt when a change can cross the top-K boundary.
+ */
+public class ContainerTally {
+	private static final Item[] NO_ITEMS = new Item[0];
+	private static final int[] NO_COUNTS = new int[0];
+	// Linked so that items with equal totals keep the order in which they were first counted.
+	private final Reference2IntLinkedOpenHashMap<Item> totals = new Reference2IntLinkedOpenHashMap<>();
+	private Item[] slotItems = NO_ITEMS;
+	private int[] slotCounts = NO_COUNTS;
+	private Item[] topItems = new Item[GlassShelfBlockEntity.MAX_DISPLAY_ITEMS];
+	private int[] topCounts = new int[GlassShelfBlockEntity.MAX_DISPLAY_ITEMS];
+	private Item[] nextItems = new Item[GlassShelfBlockEntity.MAX_DISPLAY_ITEMS];
+	private int[] nextCounts = new int[GlassShelfBlockEntity.MAX_DISPLAY_ITEMS];
+	private int topSize;
+	private int nextSize;
+	private boolean rankDirty;
+	private long version;
+	private int lastRefreshTick = Integer.MIN_VALUE;
+	private boolean lastRefreshChanged;
+
+	public boolean isCurrent(int tick) {
+		return this.lastRefreshTick == tick;
+	}
+
+	/**
+	 * Diffs the container against the previous refresh. The version advances only when the ranked items
+	 * change, which tells each shelf whether it has anything to apply.
+	 */
+	public void refresh(@Nullable Container container, int tick) {
+		this.lastRefreshTick = tick;
+		this.lastRefreshChanged = this.update(container);
+	}
+
+	/**
+	 * Whether the latest refresh found any slot different, even if the ranking stayed the same.
+	 */
+	public boolean changedOnLastRefresh() {
+		return this.lastRefreshChanged;
+	}
+
+	public long version() {
+		return this.version;
+	}
+
+	/**
+	 * Brings the totals in line with the container's current contents. A missing container counts as an
+	 * empty one.
+	 *
+	 * @return whether any slot differed from the previous refresh
+	 */
+	private boolean update(@Nullable Container container) {
+		int size = container == null ? 0 : container.getContainerSize();
+		boolean changed = false;
+		if (size != this.slotItems.length) {
+			this.reset(size);
+			changed = true;
+		}
+		for (int i = 0; i < size; i++) {
+			ItemStack stack = container.getItem(i);
+			Item item = stack.isEmpty() ? null : stack.getItem();
+			int count = item == null ? 0 : stack.getCount();
+			Item oldItem = this.slotItems[i];
+			int oldCount = this.slotCounts[i];
+			if (item == oldItem && count == oldCount) continue;
+			changed = true;
+			if (oldItem != null) {
+				this.adjust(oldItem, -oldCount);
+			}
+			if (item != null) {
+				this.adjust(item, count);
+			}
+			this.slotItems[i] = item;
+			this.slotCounts[i] = count;
+		}
+		if (this.rankDirty) {
+			this.rankDirty = false;
+			if (this.rerank()) {
+				this.version++;
+			}
+		}
+		return changed;
+	}
+
+	private void reset(int size) {
+		this.totals.clear();
+		this.slotItems = new Item[size];
+		this.slotCounts = new int[size];
+		this.rankDirty = true;
+	}
+
+	private void adjust(Item item, int delta) {
+		int total = this.totals.addTo(item, delta) + delta;
+		if (total <= 0) {
+			this.totals.removeInt(item);
+		}
+		if (!this.rankDirty && this.crossesBoundary(item, total)) {
+			this.rankDirty = true;
+		}
+	}
+
+	private boolean crossesBoundary(Item item, int total) {
+		if (this.topSize < this.topItems.length) return true;
+		for (int i = 0; i < this.topSize; i++) {
+			if (this.topItems[i] == item) return true;
+		}
+		return total > this.topCounts[this.topSize - 1];
+	}
+
+	private boolean rerank() {
+		this.nextSize = 0;
+		ObjectIterator<Reference2IntMap.Entry<Item>> it = this.totals.reference2IntEntrySet().fastIterator();
+		while (it.hasNext()) {
+			Reference2IntMap.Entry<Item> entry = it.next();
+			this.offer(entry.getKey(), entry.getIntValue());
+		}
+
+		boolean changed = this.nextSize != this.topSize;
+		for (int i = 0; !changed && i < this.nextSize; i++) {
+			changed = this.nextItems[i] != this.topItems[i];
+		}
+		Item[] items = this.topItems;
+		int[] counts = this.topCounts;
+		this.topItems = this.nextItems;
+		this.topCounts = this.nextCounts;
+		this.topSize = this.nextSize;
+		this.nextItems = items;
+		this.nextCounts = counts;
+		return changed;
+	}
+
+	private void offer(Item item, int count) {
+		int slot;
+		if (this.nextSize < this.nextItems.length) {
+			slot = this.nextSize++;
+		} else if (count > this.nextCounts[this.nextItems.length - 1]) {
+			slot = this.nextItems.length - 1;
+		} else {
+			return;
+		}
+		while (slot > 0 && this.nextCounts[slot - 1] < count) {
+			this.nextItems[slot] = this.nextItems[slot - 1];
+			this.nextCounts[slot] = this.nextCounts[slot - 1];
+			slot--;
+		}
+		this.nextItems[slot] = item;
+		this.nextCounts[slot] = count;
+	}
+
+	public int size() {
+		return this.topSize;
+	}
+
+	public Item getItem(int rank) {
+		return this.topItems[rank];
+	}
+}
@@ -1,7 +1,11 @@
 package ninja.trek.glassshelf;
 
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
 import net.fabricmc.fabric.api.itemgroup.v1.ItemGroupEvents;
+import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
 import net.fabricmc.fabric.api.object.builder.v1.block.entity.FabricBlockEntityTypeBuilder;
 import net.minecraft.core.Registry;
 import net.minecraft.core.registries.BuiltInRegistries;
@@ -87,6 +91,29 @@ public class GlassShelf implements ModInitializer {
 	@Override
 	public void onInitialize() {
 		LOGGER.info("Glass Shelf mod initialized");
+		GlassShelfServerConfig.load();
+		PayloadTypeRegistry.playS2C().register(ShelfDisplayPayload.TYPE, ShelfDisplayPayload.CODEC);
+		ServerWorldEvents.UNLOAD.register((server, level) -> {
+			ShelfIndex.unload(level);
+			ShelfRefreshQueue.unload(level);
+			ShelfSyncBatcher.unload(level);
+			ShelfRevalidationWheel.unload(level);
+		});
+		ServerTickEvents.END_WORLD_TICK.register(level -> {
+			ShelfRevalidationWheel wheel = ShelfRevalidationWheel.getIfPresent(level);
+			if (wheel != null) {
+				wheel.tick();
+			}
+			ShelfRefreshQueue queue = ShelfRefreshQueue.getIfPresent(level);
+			if (queue != null) {
+				queue.drain();
+			}
+			ShelfSyncBatcher batcher = ShelfSyncBatcher.getIfPresent(level);
+			if (batcher != null) {
+				batcher.flush();
+			}
+		});
+		CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> GlassShelfCommands.register(dispatcher));
 		ItemGroupEvents.modifyEntriesEvent(CreativeModeTabs.BUILDING_BLOCKS).register(entries -> {
 			entries.accept(GLASS_SHELF_ITEM);
 			entries.accept(OAK_GLASS_SHELF_ITEM);
@@ -4,6 +4,7 @@ import com.mojang.serialization.MapCodec;
 import java.util.Map;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.tags.FluidTags;
 import net.minecraft.util.RandomSource;
 import net.minecraft.world.InteractionResult;
@@ -20,8 +21,6 @@ import net.minecraft.world.level.block.RenderShape;
 import net.minecraft.world.level.block.Rotation;
 import net.minecraft.world.level.block.SimpleWaterloggedBlock;
 import net.minecraft.world.level.block.entity.BlockEntity;
-import net.minecraft.world.level.block.entity.BlockEntityTicker;
-import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.minecraft.world.level.block.state.BlockBehaviour;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.StateDefinition;
@@ -31,7 +30,6 @@ import net.minecraft.world.level.block.state.properties.EnumProperty;
 import net.minecraft.world.level.material.FluidState;
 import net.minecraft.world.level.material.Fluids;
 import net.minecraft.world.level.pathfinder.PathComputationType;
-import net.minecraft.world.level.redstone.Orientation;
 import net.minecraft.world.phys.BlockHitResult;
 import net.minecraft.world.phys.shapes.CollisionContext;
 import net.minecraft.world.phys.shapes.Shapes;
@@ -85,26 +83,11 @@ public class GlassShelfBlock extends BaseEntityBlock implements SimpleWaterlogge
 		return new GlassShelfBlockEntity(pos, state);
 	}
 
-	@Nullable
-	@Override
-	public <T extends BlockEntity> BlockEntityTicker<T> getTicker(Level level, BlockState state, BlockEntityType<T> type) {
-		return level.isClientSide() ? null : createTickerHelper(type, GlassShelf.GLASS_SHELF_BLOCK_ENTITY, GlassShelfBlockEntity::tick);
-	}
-
-	@Override
-	protected void neighborChanged(BlockState state, Level level, BlockPos pos, Block block, @Nullable Orientation orientation, boolean movedByPiston) {
-		if (!level.isClientSide()) {
-			if (level.getBlockEntity(pos) instanceof GlassShelfBlockEntity shelf) {
-				shelf.refreshDisplay();
-			}
-		}
-	}
-
 	@Override
 	protected void onPlace(BlockState state, Level level, BlockPos pos, BlockState oldState, boolean movedByPiston) {
 		if (!level.isClientSide()) {
 			if (level.getBlockEntity(pos) instanceof GlassShelfBlockEntity shelf) {
-				shelf.refreshDisplay();
+				shelf.requestRefresh();
 			}
 		}
 	}
@@ -145,6 +128,12 @@ public class GlassShelfBlock extends BaseEntityBlock implements SimpleWaterlogge
 		if (state.getValue(WATERLOGGED)) {
 			tickAccess.scheduleTick(pos, Fluids.WATER, Fluids.WATER.getTickDelay(reader));
 		}
+		// Only the block behind can change what the shelf shows; redstone and other neighbours are ignored.
+		if (direction == state.getValue(FACING).getOpposite()
+			&& reader instanceof ServerLevel
+			&& reader.getBlockEntity(pos) instanceof GlassShelfBlockEntity shelf) {
+			shelf.requestRefresh();
+		}
 		return super.updateShape(state, reader, tickAccess, pos, direction, neighborPos, neighborState, random);
 	}
 
@@ -1,33 +1,29 @@
 package ninja.trek.glassshelf;
 
 import com.mojang.logging.LogUtils;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import net.fabricmc.fabric.api.blockview.v2.RenderDataBlockEntity;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
-import net.minecraft.core.Holder;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.core.NonNullList;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.protocol.game.ClientboundBlockEntityDataPacket;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.Mth;
 import net.minecraft.util.ProblemReporter;
 import net.minecraft.world.Container;
 import net.minecraft.world.ContainerHelper;
 import net.minecraft.world.entity.ItemOwner;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.ChestBlock;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
-import net.minecraft.world.level.gameevent.BlockPositionSource;
-import net.minecraft.world.level.gameevent.DynamicGameEventListener;
-import net.minecraft.world.level.gameevent.GameEvent;
-import net.minecraft.world.level.gameevent.GameEventListener;
-import net.minecraft.world.level.gameevent.PositionSource;
+import net.minecraft.world.level.block.state.properties.ChestType;
 import net.minecraft.world.level.storage.TagValueOutput;
 import net.minecraft.world.level.storage.ValueInput;
 import net.minecraft.world.level.storage.ValueOutput;
@@ -35,122 +31,303 @@ import net.minecraft.world.phys.Vec3;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 
-public class GlassShelfBlockEntity extends BlockEntity implements ItemOwner, GameEventListener.Provider<GameEventListener> {
+public class GlassShelfBlockEntity extends BlockEntity implements ItemOwner, RenderDataBlockEntity {
 	public static final int MAX_DISPLAY_ITEMS = 9;
 	private static final Logger LOGGER = LogUtils.getLogger();
 	private final NonNullList<ItemStack> displayItems = NonNullList.withSize(MAX_DISPLAY_ITEMS, ItemStack.EMPTY);
-	private static final int FALLBACK_INTERVAL = 200;
-	private int tickCounter;
-	private boolean listenerRegistered;
-	private final ContainerCloseListener containerCloseListener;
-	private final DynamicGameEventListener<ContainerCloseListener> dynamicListener;
+	private boolean indexed;
+	private long indexedBackingPos;
+	private boolean holdsTally;
+	private long tallyKey;
+	private long appliedTallyVersion;
+	private int revalidationInterval;
+	// Client side: bumped whenever the displayed items are replaced, so renderers know to re-resolve.
+	private int displayVersion;
+	@Nullable
+	private Object renderCache;
+	// Client side: static item geometry handed to the chunk mesh builder, or null when nothing is baked.
+	@Nullable
+	private volatile Object renderData;
 
 	public GlassShelfBlockEntity(BlockPos pos, BlockState state) {
 		super(GlassShelf.GLASS_SHELF_BLOCK_ENTITY, pos, state);
-		this.tickCounter = Math.floorMod(pos.hashCode(), FALLBACK_INTERVAL);
-		this.containerCloseListener = new ContainerCloseListener(pos);
-		this.dynamicListener = new DynamicGameEventListener<>(this.containerCloseListener);
+	}
+
+	@Override
+	public void clearRemoved() {
+		super.clearRemoved();
+		if (this.level instanceof ServerLevel serverLevel) {
+			this.updateIndex(serverLevel);
+			// The container may have changed while this shelf was unloaded and not indexed, e.g. across a
+			// chunk border, and derived displays were not saved at all. The budgeted queue absorbs the burst.
+			this.requestRefresh();
+			int fallbackInterval = GlassShelfServerConfig.fallbackInterval;
+			if (fallbackInterval > 0) {
+				// Spread the first revalidations of a freshly loaded area across the interval.
+				int delay = 1 + Math.floorMod(this.getBlockPos().hashCode(), fallbackInterval);
+				ShelfRevalidationWheel.get(serverLevel).schedule(this.getBlockPos().asLong(), delay);
+			}
+		}
 	}
 
 	@Override
 	public void setRemoved() {
 		if (this.level instanceof ServerLevel serverLevel) {
-			this.dynamicListener.remove(serverLevel);
+			this.untrack(serverLevel);
 		}
 		super.setRemoved();
 	}
 
 	@Override
-	public GameEventListener getListener() {
-		return this.containerCloseListener;
+	public void setBlockState(BlockState state) {
+		super.setBlockState(state);
+		// A rotated shelf lays its items out differently.
+		this.onDisplayChanged();
+		if (this.level instanceof ServerLevel serverLevel && !this.isRemoved()) {
+			this.updateIndex(serverLevel);
+		}
 	}
 
-	public static void tick(Level level, BlockPos pos, BlockState state, GlassShelfBlockEntity entity) {
-		if (!entity.listenerRegistered && level instanceof ServerLevel serverLevel) {
-			entity.dynamicListener.add(serverLevel);
-			entity.listenerRegistered = true;
+	private void updateIndex(ServerLevel level) {
+		long backingPos = this.getBackingPos().asLong();
+		if (this.indexed && this.indexedBackingPos == backingPos) return;
+		ShelfIndex index = ShelfIndex.get(level);
+		if (this.indexed) {
+			index.remove(this.indexedBackingPos, this);
 		}
-		entity.tickCounter++;
-		if (entity.tickCounter < FALLBACK_INTERVAL) return;
-		entity.tickCounter = 0;
-		entity.refreshDisplay();
+		index.add(backingPos, this);
+		this.indexed = true;
+		this.indexedBackingPos = backingPos;
 	}
 
-	public void refreshDisplay() {
-		Level level = this.level;
-		if (level == null || level.isClientSide()) return;
-		BlockPos pos = this.getBlockPos();
-		BlockState state = this.getBlockState();
-		Direction facing = state.getValue(GlassShelfBlock.FACING);
-		BlockPos chestPos = pos.relative(facing.getOpposite());
+	private void untrack(ServerLevel level) {
+		ShelfRevalidationWheel wheel = ShelfRevalidationWheel.getIfPresent(level);
+		if (wheel != null) {
+			wheel.remove(this.getBlockPos().asLong());
+		}
+		ShelfIndex index = ShelfIndex.getIfPresent(level);
+		if (index != null) {
+			if (this.indexed) {
+				index.remove(this.indexedBackingPos, this);
+			}
+			if (this.holdsTally) {
+				index.releaseTally(this.tallyKey);
+			}
+		}
+		this.indexed = false;
+		this.holdsTally = false;
+	}
 
-		Container container = getContainerAt(level, chestPos);
-		if (container == null) {
-			if (!allEmpty(this.displayItems)) {
-				clearItems(this.displayItems);
-				this.setChanged();
-				level.sendBlockUpdated(pos, state, state, 3);
+	private ContainerTally acquireTally(ShelfIndex index, long key) {
+		if (!this.holdsTally || this.tallyKey != key) {
+			if (this.holdsTally) {
+				index.releaseTally(this.tallyKey);
 			}
-			return;
+			this.holdsTally = true;
+			this.tallyKey = key;
+			this.appliedTallyVersion = -1L;
+			return index.acquireTally(key);
 		}
+		return index.getTally(key);
+	}
 
-		Map<Item, Integer> counts = new HashMap<>();
-		for (int i = 0; i < container.getContainerSize(); i++) {
-			ItemStack stack = container.getItem(i);
-			if (!stack.isEmpty()) {
-				counts.merge(stack.getItem(), stack.getCount(), Integer::sum);
+	public void requestRefresh() {
+		if (this.level instanceof ServerLevel serverLevel) {
+			ShelfRefreshQueue.get(serverLevel).request(this.getBlockPos().asLong());
+		}
+	}
+
+	public BlockPos getBackingPos() {
+		return this.getBlockPos().relative(this.getBlockState().getValue(GlassShelfBlock.FACING).getOpposite());
+	}
+
+	/**
+	 * Called whenever a block entity reports a change through either setChanged overload. Compound
+	 * containers such as double chests forward setChanged to each half, so hoppers and menus feeding
+	 * either half land here too.
+	 */
+	public static void markAttachedShelvesDirty(ServerLevel level, BlockPos containerPos) {
+		ShelfIndex index = ShelfIndex.getIfPresent(level);
+		if (index == null) return;
+		List<GlassShelfBlockEntity> shelves = index.getShelves(containerPos.asLong());
+		if (shelves == null) return;
+		for (int i = 0; i < shelves.size(); i++) {
+			shelves.get(i).requestRefresh();
+		}
+	}
+
+	/**
+	 * Recomputes the displayed items from the backing container. Shelves on the same logical container
+	 * share one {@link ContainerTally}, which rescans at most once per server tick.
+	 *
+	 * @return false when the container had not changed since its previous rescan
+	 */
+	public boolean refreshDisplay() {
+		if (!(this.level instanceof ServerLevel level)) return false;
+		if (!isContainerLoaded(level, this.getBackingPos())) {
+			// Keep showing what we have rather than force-load the chunk; retry at the current interval.
+			if (GlassShelfServerConfig.fallbackInterval > 0) {
+				int interval = this.revalidationInterval > 0 ? this.revalidationInterval : GlassShelfServerConfig.fallbackInterval;
+				ShelfRevalidationWheel.get(level).schedule(this.getBlockPos().asLong(), interval);
 			}
+			return false;
 		}
+		boolean changed = this.recompute(level);
+		if (GlassShelfServerConfig.fallbackInterval > 0) {
+			this.scheduleRevalidation(level, changed);
+		}
+		return changed;
+	}
 
-		List<Map.Entry<Item, Integer>> sorted = new ArrayList<>(counts.entrySet());
-		sorted.sort(Map.Entry.<Item, Integer>comparingByValue().reversed());
+	/**
+	 * Backs the revalidation period off exponentially while refreshes keep finding nothing new, and
+	 * halves it whenever one finds a change, within the configured bounds.
+	 */
+	private void scheduleRevalidation(ServerLevel level, boolean changed) {
+		int interval = this.revalidationInterval > 0 ? this.revalidationInterval : GlassShelfServerConfig.fallbackInterval;
+		interval = changed ? interval / 2 : interval * 2;
+		this.revalidationInterval = Mth.clamp(interval,
+			GlassShelfServerConfig.minRevalidationInterval, GlassShelfServerConfig.maxRevalidationInterval);
+		ShelfRevalidationWheel.get(level).schedule(this.getBlockPos().asLong(), this.revalidationInterval);
+	}
 
-		NonNullList<ItemStack> newItems = NonNullList.withSize(MAX_DISPLAY_ITEMS, ItemStack.EMPTY);
-		for (int i = 0; i < Math.min(sorted.size(), MAX_DISPLAY_ITEMS); i++) {
-			newItems.set(i, new ItemStack(sorted.get(i).getKey()));
+	public int getRevalidationInterval() {
+		return this.revalidationInterval;
+	}
+
+	private boolean recompute(ServerLevel level) {
+		BlockPos chestPos = this.getBackingPos();
+		int tick = level.getServer().getTickCount();
+
+		ContainerTally tally = this.acquireTally(ShelfIndex.get(level), canonicalContainerKey(level, chestPos));
+		if (!tally.isCurrent(tick)) {
+			tally.refresh(getContainerAt(level, chestPos), tick);
 		}
+		if (this.appliedTallyVersion == tally.version()) return tally.changedOnLastRefresh();
+		this.appliedTallyVersion = tally.version();
 
-		if (!itemsEqual(this.displayItems, newItems)) {
-			for (int i = 0; i < MAX_DISPLAY_ITEMS; i++) {
-				this.displayItems.set(i, newItems.get(i));
+		int changedMask = this.applyRanking(tally);
+		if (changedMask != 0) {
+			if (!GlassShelfServerConfig.derivedDisplay) {
+				this.setChanged();
 			}
-			this.setChanged();
-			level.sendBlockUpdated(pos, state, state, 3);
+			ShelfSyncBatcher.get(level).add(this, changedMask);
 		}
+		return true;
 	}
 
-	@Nullable
-	private static Container getContainerAt(Level level, BlockPos pos) {
-		BlockState state = level.getBlockState(pos);
-		if (state.getBlock() instanceof ChestBlock chestBlock) {
-			return ChestBlock.getContainer(chestBlock, state, level, pos, false);
+	/**
+	 * @return a bit mask of the display slots whose item changed
+	 */
+	private int applyRanking(ContainerTally tally) {
+		int ranked = tally.size();
+		int changedMask = 0;
+		for (int i = 0; i < MAX_DISPLAY_ITEMS; i++) {
+			ItemStack current = this.displayItems.get(i);
+			if (i < ranked) {
+				Item item = tally.getItem(i);
+				if (!current.is(item)) {
+					this.displayItems.set(i, new ItemStack(item));
+					changedMask |= 1 << i;
+				}
+			} else if (!current.isEmpty()) {
+				this.displayItems.set(i, ItemStack.EMPTY);
+				changedMask |= 1 << i;
+			}
 		}
-		BlockEntity be = level.getBlockEntity(pos);
-		if (be instanceof Container container) {
-			return container;
+		return changedMask;
+	}
+
+	/**
+	 * Client side: applies one {@link ShelfDisplayPayload.Entry} received from the server.
+	 */
+	public void applyDisplayDelta(int changedMask, int[] itemIds) {
+		int next = 0;
+		for (int i = 0; i < MAX_DISPLAY_ITEMS && next < itemIds.length; i++) {
+			if ((changedMask & (1 << i)) == 0) continue;
+			Item item = Item.byId(itemIds[next++]);
+			this.displayItems.set(i, item == Items.AIR ? ItemStack.EMPTY : new ItemStack(item));
 		}
-		return null;
+		this.onDisplayChanged();
+	}
+
+	/**
+	 * Client side: invalidates the renderer's cached models. Baked chunk geometry is dropped right away
+	 * and its section rebuilt, since the renderer only re-bakes shelves it extracts and a distant one may
+	 * not be extracted again for a long time.
+	 */
+	private void onDisplayChanged() {
+		this.displayVersion++;
+		if (this.renderData != null && this.level != null && this.level.isClientSide()) {
+			this.renderData = null;
+			BlockState state = this.getBlockState();
+			this.level.sendBlockUpdated(this.getBlockPos(), state, state, Block.UPDATE_CLIENTS);
+		}
+	}
+
+	public int getDisplayVersion() {
+		return this.displayVersion;
+	}
+
+	/**
+	 * Opaque per-shelf slot for the client renderer's resolved models.
+	 */
+	@Nullable
+	public Object getRenderCache() {
+		return this.renderCache;
+	}
+
+	public void setRenderCache(@Nullable Object renderCache) {
+		this.renderCache = renderCache;
 	}
 
-	private static boolean allEmpty(NonNullList<ItemStack> items) {
-		for (ItemStack item : items) {
-			if (!item.isEmpty()) return false;
+	@Nullable
+	@Override
+	public Object getRenderData() {
+		return this.renderData;
+	}
+
+	public void setRenderData(@Nullable Object renderData) {
+		this.renderData = renderData;
+	}
+
+	/**
+	 * Whether the container at {@code pos}, and the other half of a double chest, can be read without
+	 * loading a chunk.
+	 */
+	private static boolean isContainerLoaded(Level level, BlockPos pos) {
+		if (!level.isLoaded(pos)) return false;
+		BlockState state = level.getBlockState(pos);
+		if (state.getBlock() instanceof ChestBlock && state.getValue(ChestBlock.TYPE) != ChestType.SINGLE) {
+			return level.isLoaded(pos.relative(ChestBlock.getConnectedDirection(state)));
 		}
 		return true;
 	}
 
-	private static void clearItems(NonNullList<ItemStack> items) {
-		for (int i = 0; i < items.size(); i++) {
-			items.set(i, ItemStack.EMPTY);
+	/**
+	 * Both halves of a double chest resolve to the lower of their two packed positions, so every shelf
+	 * showing the combined inventory shares one tally.
+	 */
+	private static long canonicalContainerKey(Level level, BlockPos pos) {
+		BlockState state = level.getBlockState(pos);
+		if (state.getBlock() instanceof ChestBlock && state.getValue(ChestBlock.TYPE) != ChestType.SINGLE) {
+			long otherHalf = pos.relative(ChestBlock.getConnectedDirection(state)).asLong();
+			return Math.min(pos.asLong(), otherHalf);
 		}
+		return pos.asLong();
 	}
 
-	private static boolean itemsEqual(NonNullList<ItemStack> a, NonNullList<ItemStack> b) {
-		if (a.size() != b.size()) return false;
-		for (int i = 0; i < a.size(); i++) {
-			if (!ItemStack.isSameItem(a.get(i), b.get(i))) return false;
+	@Nullable
+	private static Container getContainerAt(Level level, BlockPos pos) {
+		BlockState state = level.getBlockState(pos);
+		if (state.getBlock() instanceof ChestBlock chestBlock) {
+			return ChestBlock.getContainer(chestBlock, state, level, pos, false);
 		}
-		return true;
+		BlockEntity be = level.getBlockEntity(pos);
+		if (be instanceof Container container) {
+			return container;
+		}
+		return null;
 	}
 
 	public NonNullList<ItemStack> getDisplayItems() {
@@ -162,12 +339,15 @@ public class GlassShelfBlockEntity extends BlockEntity implements ItemOwner, Gam
 		super.loadAdditional(input);
 		this.displayItems.clear();
 		ContainerHelper.loadAllItems(input, this.displayItems);
+		this.onDisplayChanged();
 	}
 
 	@Override
 	protected void saveAdditional(ValueOutput output) {
 		super.saveAdditional(output);
-		ContainerHelper.saveAllItems(output, this.displayItems, true);
+		if (!GlassShelfServerConfig.derivedDisplay) {
+			ContainerHelper.saveAllItems(output, this.displayItems, true);
+		}
 	}
 
 	public ClientboundBlockEntityDataPacket getUpdatePacket() {
@@ -199,31 +379,4 @@ public class GlassShelfBlockEntity extends BlockEntity implements ItemOwner, Gam
 	public float getVisualRotationYInDegrees() {
 		return ((Direction)this.getBlockState().getValue(GlassShelfBlock.FACING)).getOpposite().toYRot();
 	}
-
-	private class ContainerCloseListener implements GameEventListener {
-		private final PositionSource positionSource;
-
-		ContainerCloseListener(BlockPos pos) {
-			this.positionSource = new BlockPositionSource(pos);
-		}
-
-		@Override
-		public PositionSource getListenerSource() {
-			return this.positionSource;
-		}
-
-		@Override
-		public int getListenerRadius() {
-			return 2;
-		}
-
-		@Override
-		public boolean handleGameEvent(ServerLevel level, Holder<GameEvent> event, GameEvent.Context context, Vec3 pos) {
-			if (event.is(GameEvent.CONTAINER_CLOSE)) {
-				refreshDisplay();
-				return true;
-			}
-			return false;
-		}
-	}
 }
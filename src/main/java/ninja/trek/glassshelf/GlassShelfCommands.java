@@ -0,0 +1,81 @@
+package ninja.trek.glassshelf;
+
+import com.mojang.brigadier.CommandDispatcher;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerLevel;
+
+public class GlassShelfCommands {
+	public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+		dispatcher.register(Commands.literal("glassshelf")
+			.requires(Commands.hasPermission(Commands.LEVEL_GAMEMASTERS))
+			.then(Commands.literal("stats").executes(context -> {
+				CommandSourceStack source = context.getSource();
+				for (ServerLevel level : source.getServer().getAllLevels()) {
+					reportLevel(source, level);
+				}
+				return 1;
+			})));
+	}
+
+	private static void reportLevel(CommandSourceStack source, ServerLevel level) {
+		ShelfIndex index = ShelfIndex.getIfPresent(level);
+		ShelfRefreshQueue queue = ShelfRefreshQueue.getIfPresent(level);
+		if (index == null && queue == null) return;
+		StringBuilder line = new StringBuilder(level.toString());
+		if (index != null) {
+			line.append(": ").append(index.shelfCount()).append(" shelves on ")
+				.append(index.containerCount()).append(" containers, ")
+				.append(index.tallyCount()).append(" shared tallies");
+		}
+		if (queue != null) {
+			line.append("; refresh requests ").append(queue.requestedCount())
+				.append(", absorbed ").append(queue.absorbedCount())
+				.append(", refreshed ").append(queue.refreshedCount())
+				.append(", carried over ").append(queue.carriedOverCount())
+				.append(", pending ").append(queue.pendingCount())
+				.append(" (oldest ").append(queue.oldestPendingAge()).append(" ticks)");
+			long hits = queue.unchangedRefreshCount();
+			long total = hits + queue.changedRefreshCount();
+			line.append("; unchanged skips ").append(hits).append('/').append(total);
+			if (total > 0) {
+				line.append(" (").append(hits * 100 / total).append("%)");
+			}
+		}
+		ShelfRevalidationWheel wheel = ShelfRevalidationWheel.getIfPresent(level);
+		if (wheel != null) {
+			line.append("; revalidations scheduled ").append(wheel.scheduledCount())
+				.append(", fired ").append(wheel.firedCount());
+			if (index != null) {
+				appendIntervalHistogram(line, index);
+			}
+		}
+		ShelfSyncBatcher batcher = ShelfSyncBatcher.getIfPresent(level);
+		if (batcher != null) {
+			line.append("; sync packets ").append(batcher.payloadsSentCount())
+				.append(" carrying ").append(batcher.entriesSentCount()).append(" shelf updates");
+		}
+		String message = line.toString();
+		source.sendSuccess(() -> Component.literal(message), false);
+	}
+
+	/**
+	 * Appends how many shelves sit in each power-of-two band of revalidation interval, e.g. "64-127t: 12".
+	 */
+	private static void appendIntervalHistogram(StringBuilder line, ShelfIndex index) {
+		int[] bands = new int[Integer.SIZE];
+		index.forEachShelf(shelf -> {
+			int interval = shelf.getRevalidationInterval();
+			if (interval > 0) {
+				bands[31 - Integer.numberOfLeadingZeros(interval)]++;
+			}
+		});
+		line.append("; intervals");
+		for (int band = 0; band < bands.length; band++) {
+			if (bands[band] == 0) continue;
+			line.append(' ').append(1 << band).append('-').append((1 << (band + 1)) - 1)
+				.append("t: ").append(bands[band]);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package ninja.trek.glassshelf;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import net.fabricmc.loader.api.FabricLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class GlassShelfServerConfig {
+	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+	private static final Path CONFIG_PATH = FabricLoader.getInstance().getConfigDir().resolve("glass-shelf-server.json");
+
+	// Initial ticks between unconditional container rescans; 0 relies purely on container change events.
+	public static int fallbackInterval = 0;
+	// Bounds for each shelf's adaptive revalidation period.
+	public static int minRevalidationInterval = 20;
+	public static int maxRevalidationInterval = 6000;
+	// Time each level may spend refreshing shelves per tick; 0 drains the whole queue every tick.
+	public static long refreshBudgetNanos = 1_000_000L;
+	// Treat displays as derived from the container: not saved, never dirty the chunk, rebuilt after load.
+	public static boolean derivedDisplay = false;
+
+	private static class Data {
+		int fallbackInterval = 0;
+		int minRevalidationInterval = 20;
+		int maxRevalidationInterval = 6000;
+		long refreshBudgetNanos = 1_000_000L;
+		boolean derivedDisplay = false;
+	}
+
+	public static void load() {
+		if (Files.exists(CONFIG_PATH)) {
+			try {
+				String json = Files.readString(CONFIG_PATH);
+				Data data = GSON.fromJson(json, Data.class);
+				if (data != null) {
+					fallbackInterval = Math.max(0, data.fallbackInterval);
+					minRevalidationInterval = Math.max(1, data.minRevalidationInterval);
+					maxRevalidationInterval = Math.max(minRevalidationInterval, data.maxRevalidationInterval);
+					refreshBudgetNanos = Math.max(0L, data.refreshBudgetNanos);
+					derivedDisplay = data.derivedDisplay;
+				}
+			} catch (IOException | com.google.gson.JsonSyntaxException e) {
+				GlassShelf.LOGGER.warn("Failed to load glass-shelf server config", e);
+			}
+		}
+		save();
+	}
+
+	public static void save() {
+		Data data = new Data();
+		data.fallbackInterval = fallbackInterval;
+		data.minRevalidationInterval = minRevalidationInterval;
+		data.maxRevalidationInterval = maxRevalidationInterval;
+		data.refreshBudgetNanos = refreshBudgetNanos;
+		data.derivedDisplay = derivedDisplay;
+		try {
+			Files.writeString(CONFIG_PATH, GSON.toJson(data));
+		} catch (IOException e) {
+			GlassShelf.LOGGER.warn("Failed to save glass-shelf server config", e);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package ninja.trek.glassshelf;
+
+import java.util.List;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.NonNullList;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.Identifier;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.ChunkPos;
+
+/**
+ * Carries every shelf display change in one chunk for one tick. Each entry holds the shelf position
+ * relative to the chunk, a bit mask of the slots that changed and the raw item id of each changed
+ * slot. Air clears the slot.
+ */
+public record ShelfDisplayPayload(ChunkPos chunkPos, List<Entry> entries) implements CustomPacketPayload {
+	public static final CustomPacketPayload.Type<ShelfDisplayPayload> TYPE =
+		new CustomPacketPayload.Type<>(Identifier.fromNamespaceAndPath(GlassShelf.MOD_ID, "display"));
+	public static final StreamCodec<FriendlyByteBuf, ShelfDisplayPayload> CODEC =
+		CustomPacketPayload.codec(ShelfDisplayPayload::write, ShelfDisplayPayload::read);
+	private static final int SLOT_MASK = (1 << GlassShelfBlockEntity.MAX_DISPLAY_ITEMS) - 1;
+
+	public record Entry(int localXZ, int y, int changedMask, int[] itemIds) {
+		public static Entry of(BlockPos pos, int changedMask, NonNullList<ItemStack> items) {
+			int[] itemIds = new int[Integer.bitCount(changedMask)];
+			int next = 0;
+			for (int slot = 0; slot < items.size(); slot++) {
+				if ((changedMask & (1 << slot)) != 0) {
+					itemIds[next++] = Item.getId(items.get(slot).getItem());
+				}
+			}
+			int localXZ = (pos.getZ() & 15) << 4 | (pos.getX() & 15);
+			return new Entry(localXZ, pos.getY(), changedMask, itemIds);
+		}
+
+		public BlockPos pos(ChunkPos chunkPos) {
+			return new BlockPos(chunkPos.getBlockX(this.localXZ & 15), this.y, chunkPos.getBlockZ(this.localXZ >> 4));
+		}
+	}
+
+	private static ShelfDisplayPayload read(FriendlyByteBuf buf) {
+		ChunkPos chunkPos = buf.readChunkPos();
+		int size = buf.readVarInt();
+		Entry[] entries = new Entry[size];
+		for (int i = 0; i < size; i++) {
+			int localXZ = buf.readUnsignedByte();
+			int y = buf.readShort();
+			int changedMask = buf.readShort() & SLOT_MASK;
+			int[] itemIds = new int[Integer.bitCount(changedMask)];
+			for (int j = 0; j < itemIds.length; j++) {
+				itemIds[j] = buf.readVarInt();
+			}
+			entries[i] = new Entry(localXZ, y, changedMask, itemIds);
+		}
+		return new ShelfDisplayPayload(chunkPos, List.of(entries));
+	}
+
+	private void write(FriendlyByteBuf buf) {
+		buf.writeChunkPos(this.chunkPos);
+		buf.writeVarInt(this.entries.size());
+		for (Entry entry : this.entries) {
+			buf.writeByte(entry.localXZ());
+			buf.writeShort(entry.y());
+			buf.writeShort(entry.changedMask());
+			for (int itemId : entry.itemIds()) {
+				buf.writeVarInt(itemId);
+			}
+		}
+	}
+
+	@Override
+	public Type<ShelfDisplayPayload> type() {
+		return TYPE;
+	}
+}
@@ -0,0 +1,138 @@
+package ninja.trek.glassshelf;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.List;
+import java.util.function.Consumer;
+import net.minecraft.server.level.ServerLevel;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Per-level lookup from a packed container position to the glass shelves displaying that container.
+ * Shelves keep their own entry up to date as they load, unload, rotate and are removed.
+ * <p>
+ * Container tallies are keyed by the logical container instead (see
+ * {@link GlassShelfBlockEntity#refreshDisplay()}) and reference counted by the shelves using them.
+ * <p>
+ * A small counting Bloom filter over the indexed container positions sits in front of the map. Most
+ * containers have no shelf, and for those a lookup costs two array reads instead of a hash probe.
+ */
+public class ShelfIndex {
+	private static final Reference2ObjectOpenHashMap<ServerLevel, ShelfIndex> INDICES = new Reference2ObjectOpenHashMap<>();
+	private static final int FILTER_BITS = 15;
+	private static final int FILTER_MASK = (1 << FILTER_BITS) - 1;
+	private final Long2ObjectOpenHashMap<ObjectArrayList<GlassShelfBlockEntity>> shelvesByContainer = new Long2ObjectOpenHashMap<>();
+	private final Long2ObjectOpenHashMap<ContainerTally> tallies = new Long2ObjectOpenHashMap<>();
+	private final Long2IntOpenHashMap tallyRefs = new Long2IntOpenHashMap();
+	// Saturating counters; a counter that reaches 255 stays there, which only costs false positives.
+	private final byte[] containerFilter = new byte[1 << FILTER_BITS];
+	private int shelfCount;
+
+	public static ShelfIndex get(ServerLevel level) {
+		ShelfIndex index = INDICES.get(level);
+		if (index == null) {
+			index = new ShelfIndex();
+			INDICES.put(level, index);
+		}
+		return index;
+	}
+
+	@Nullable
+	public static ShelfIndex getIfPresent(ServerLevel level) {
+		return INDICES.get(level);
+	}
+
+	public static void unload(ServerLevel level) {
+		INDICES.remove(level);
+	}
+
+	public void add(long containerPos, GlassShelfBlockEntity shelf) {
+		ObjectArrayList<GlassShelfBlockEntity> shelves = this.shelvesByContainer.get(containerPos);
+		if (shelves == null) {
+			shelves = new ObjectArrayList<>(2);
+			this.shelvesByContainer.put(containerPos, shelves);
+			this.adjustFilter(containerPos, 1);
+		}
+		shelves.add(shelf);
+		this.shelfCount++;
+	}
+
+	public void remove(long containerPos, GlassShelfBlockEntity shelf) {
+		ObjectArrayList<GlassShelfBlockEntity> shelves = this.shelvesByContainer.get(containerPos);
+		if (shelves == null || !shelves.remove(shelf)) return;
+		this.shelfCount--;
+		if (shelves.isEmpty()) {
+			this.shelvesByContainer.remove(containerPos);
+			this.adjustFilter(containerPos, -1);
+		}
+	}
+
+	private void adjustFilter(long containerPos, int delta) {
+		long hash = HashCommon.mix(containerPos);
+		this.adjustCounter((int)hash & FILTER_MASK, delta);
+		this.adjustCounter((int)(hash >>> 32) & FILTER_MASK, delta);
+	}
+
+	private void adjustCounter(int slot, int delta) {
+		int count = this.containerFilter[slot] & 0xFF;
+		if (count == 0xFF) return;
+		this.containerFilter[slot] = (byte)(count + delta);
+	}
+
+	/**
+	 * False means no shelf is attached to the container; true means there may be one.
+	 */
+	public boolean mightHaveShelves(long containerPos) {
+		long hash = HashCommon.mix(containerPos);
+		return this.containerFilter[(int)hash & FILTER_MASK] != 0
+			&& this.containerFilter[(int)(hash >>> 32) & FILTER_MASK] != 0;
+	}
+
+	public ContainerTally acquireTally(long containerKey) {
+		this.tallyRefs.addTo(containerKey, 1);
+		return this.getTally(containerKey);
+	}
+
+	public ContainerTally getTally(long containerKey) {
+		ContainerTally tally = this.tallies.get(containerKey);
+		if (tally == null) {
+			tally = new ContainerTally();
+			this.tallies.put(containerKey, tally);
+		}
+		return tally;
+	}
+
+	public void releaseTally(long containerKey) {
+		if (this.tallyRefs.addTo(containerKey, -1) <= 1) {
+			this.tallyRefs.remove(containerKey);
+			this.tallies.remove(containerKey);
+		}
+	}
+
+	@Nullable
+	public List<GlassShelfBlockEntity> getShelves(long containerPos) {
+		if (!this.mightHaveShelves(containerPos)) return null;
+		return this.shelvesByContainer.get(containerPos);
+	}
+
+	public void forEachShelf(Consumer<GlassShelfBlockEntity> action) {
+		for (ObjectArrayList<GlassShelfBlockEntity> shelves : this.shelvesByContainer.values()) {
+			shelves.forEach(action);
+		}
+	}
+
+	public int containerCount() {
+		return this.shelvesByContainer.size();
+	}
+
+	public int tallyCount() {
+		return this.tallies.size();
+	}
+
+	public int shelfCount() {
+		return this.shelfCount;
+	}
+}
@@ -0,0 +1,179 @@
+package ninja.trek.glassshelf;
+
+import it.unimi.dsi.fastutil.longs.Long2LongLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.Arrays;
+import java.util.List;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Per-level set of shelf positions waiting for a display refresh. Every trigger feeds into it and the
+ * set is drained at the end of the level tick, so a shelf recomputes at most once per tick.
+ * <p>
+ * Draining stops once {@link GlassShelfServerConfig#refreshBudgetNanos} is spent. Shelves closest to an
+ * online player go first; whatever is left carries over to the next tick.
+ */
+public class ShelfRefreshQueue {
+	private static final Reference2ObjectOpenHashMap<ServerLevel, ShelfRefreshQueue> QUEUES = new Reference2ObjectOpenHashMap<>();
+	// Ticks before a partly drained batch is re-ordered to pick up new requests and moved players.
+	private static final long BATCH_LIFETIME = 20L;
+	private final ServerLevel level;
+	// Shelf position -> game time of the first pending request, in request order.
+	private final Long2LongLinkedOpenHashMap pending = new Long2LongLinkedOpenHashMap();
+	private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+	private long[] batchPositions = new long[64];
+	private long[] batchOrder = new long[64];
+	private int batchSize;
+	private int batchCursor;
+	private long batchTime;
+	private long requested;
+	private long absorbed;
+	private long refreshed;
+	private long carriedOver;
+	private long unchangedRefreshes;
+	private long changedRefreshes;
+
+	private ShelfRefreshQueue(ServerLevel level) {
+		this.level = level;
+	}
+
+	public static ShelfRefreshQueue get(ServerLevel level) {
+		ShelfRefreshQueue queue = QUEUES.get(level);
+		if (queue == null) {
+			queue = new ShelfRefreshQueue(level);
+			QUEUES.put(level, queue);
+		}
+		return queue;
+	}
+
+	@Nullable
+	public static ShelfRefreshQueue getIfPresent(ServerLevel level) {
+		return QUEUES.get(level);
+	}
+
+	public static void unload(ServerLevel level) {
+		QUEUES.remove(level);
+	}
+
+	public void request(long shelfPos) {
+		this.requested++;
+		if (this.pending.containsKey(shelfPos)) {
+			this.absorbed++;
+			return;
+		}
+		this.pending.put(shelfPos, this.level.getGameTime());
+	}
+
+	public void drain() {
+		if (this.pending.isEmpty()) return;
+		long budget = GlassShelfServerConfig.refreshBudgetNanos;
+		long start = System.nanoTime();
+		long now = this.level.getGameTime();
+		if (this.batchCursor >= this.batchSize || now - this.batchTime >= BATCH_LIFETIME) {
+			this.collectBatch(this.pending.size());
+			this.batchTime = now;
+		}
+
+		// Ordering the batch counts against the budget too, but at least one shelf refreshes per tick.
+		while (this.batchCursor < this.batchSize) {
+			long shelfPos = this.batchPositions[(int)this.batchOrder[this.batchCursor++]];
+			this.pending.remove(shelfPos);
+			this.cursor.set(shelfPos);
+			if (this.level.isLoaded(this.cursor) && this.level.getBlockEntity(this.cursor) instanceof GlassShelfBlockEntity shelf) {
+				if (shelf.refreshDisplay()) {
+					this.changedRefreshes++;
+				} else {
+					this.unchangedRefreshes++;
+				}
+				this.refreshed++;
+			}
+			if (budget > 0L && System.nanoTime() - start >= budget) break;
+		}
+		this.carriedOver += this.pending.size();
+	}
+
+	/**
+	 * Snapshots the pending positions and orders them by squared distance to the nearest player. Each order
+	 * entry packs the distance into the high half and the batch index into the low half, so a primitive
+	 * sort keeps request order among equally distant shelves.
+	 * <p>
+	 * The batch is drained across ticks and only collected again once it is used up or
+	 * {@link #BATCH_LIFETIME} ticks old, so a large backlog is not re-sorted every tick. Requests made in
+	 * the meantime wait for the next batch.
+	 */
+	private void collectBatch(int count) {
+		if (this.batchPositions.length < count) {
+			int size = Math.max(count, this.batchPositions.length * 2);
+			this.batchPositions = new long[size];
+			this.batchOrder = new long[size];
+		}
+		List<ServerPlayer> players = this.level.players();
+		LongIterator it = this.pending.keySet().iterator();
+		for (int i = 0; i < count; i++) {
+			long shelfPos = it.nextLong();
+			this.batchPositions[i] = shelfPos;
+			long distance = nearestPlayerDistanceSqr(players, shelfPos);
+			this.batchOrder[i] = (distance << 32) | i;
+		}
+		Arrays.sort(this.batchOrder, 0, count);
+		this.batchSize = count;
+		this.batchCursor = 0;
+	}
+
+	private static long nearestPlayerDistanceSqr(List<ServerPlayer> players, long shelfPos) {
+		int x = BlockPos.getX(shelfPos);
+		int y = BlockPos.getY(shelfPos);
+		int z = BlockPos.getZ(shelfPos);
+		double nearest = Integer.MAX_VALUE;
+		for (int i = 0; i < players.size(); i++) {
+			ServerPlayer player = players.get(i);
+			if (player.isSpectator()) continue;
+			double dx = player.getX() - (x + 0.5);
+			double dy = player.getY() - (y + 0.5);
+			double dz = player.getZ() - (z + 0.5);
+			nearest = Math.min(nearest, dx * dx + dy * dy + dz * dz);
+		}
+		return (long)nearest;
+	}
+
+	public int pendingCount() {
+		return this.pending.size();
+	}
+
+	/**
+	 * Age in ticks of the longest-waiting pending refresh, or 0 when nothing is pending.
+	 */
+	public long oldestPendingAge() {
+		if (this.pending.isEmpty()) return 0L;
+		// Entries keep their first request time and insertion order, so the head is the oldest.
+		return this.level.getGameTime() - this.pending.get(this.pending.firstLongKey());
+	}
+
+	public long requestedCount() {
+		return this.requested;
+	}
+
+	public long absorbedCount() {
+		return this.absorbed;
+	}
+
+	public long refreshedCount() {
+		return this.refreshed;
+	}
+
+	public long carriedOverCount() {
+		return this.carriedOver;
+	}
+
+	public long unchangedRefreshCount() {
+		return this.unchangedRefreshes;
+	}
+
+	public long changedRefreshCount() {
+		return this.changedRefreshes;
+	}
+}
@@ -0,0 +1,110 @@
+package ninja.trek.glassshelf;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.server.level.ServerLevel;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Per-level hashed timing wheel of shelves due for fallback revalidation. Each tick only the bucket for
+ * that tick is visited, so the cost follows the number of due shelves rather than all loaded shelves.
+ * <p>
+ * Bucket entries are (shelf position, due tick) pairs. An entry only fires if it still matches the due
+ * tick recorded for the shelf, so removal and rescheduling just update that record and leave the stale
+ * entry to be dropped when its bucket comes around.
+ */
+public class ShelfRevalidationWheel {
+	private static final Reference2ObjectOpenHashMap<ServerLevel, ShelfRevalidationWheel> WHEELS = new Reference2ObjectOpenHashMap<>();
+	private static final int WHEEL_BITS = 8;
+	private static final int WHEEL_MASK = (1 << WHEEL_BITS) - 1;
+	private final ServerLevel level;
+	private final LongArrayList[] buckets = new LongArrayList[1 << WHEEL_BITS];
+	private final Long2IntOpenHashMap dueTicks = new Long2IntOpenHashMap();
+	private LongArrayList spare = new LongArrayList();
+	private int currentTick;
+	private long fired;
+
+	private ShelfRevalidationWheel(ServerLevel level) {
+		this.level = level;
+		this.currentTick = level.getServer().getTickCount();
+		for (int i = 0; i < this.buckets.length; i++) {
+			this.buckets[i] = new LongArrayList();
+		}
+	}
+
+	public static ShelfRevalidationWheel get(ServerLevel level) {
+		ShelfRevalidationWheel wheel = WHEELS.get(level);
+		if (wheel == null) {
+			wheel = new ShelfRevalidationWheel(level);
+			WHEELS.put(level, wheel);
+		}
+		return wheel;
+	}
+
+	@Nullable
+	public static ShelfRevalidationWheel getIfPresent(ServerLevel level) {
+		return WHEELS.get(level);
+	}
+
+	public static void unload(ServerLevel level) {
+		WHEELS.remove(level);
+	}
+
+	/**
+	 * Schedules a revalidation {@code delay} ticks from now, unless an earlier one is already pending.
+	 */
+	public void schedule(long shelfPos, int delay) {
+		int due = this.currentTick + Math.max(1, delay);
+		if (this.dueTicks.containsKey(shelfPos) && this.dueTicks.get(shelfPos) - due <= 0) return;
+		this.dueTicks.put(shelfPos, due);
+		LongArrayList bucket = this.buckets[due & WHEEL_MASK];
+		bucket.add(shelfPos);
+		bucket.add(due);
+	}
+
+	public void remove(long shelfPos) {
+		this.dueTicks.remove(shelfPos);
+	}
+
+	public void tick() {
+		int now = this.level.getServer().getTickCount();
+		while (this.currentTick - now < 0) {
+			this.currentTick++;
+			this.advance(this.currentTick);
+		}
+	}
+
+	private void advance(int tick) {
+		int index = tick & WHEEL_MASK;
+		LongArrayList bucket = this.buckets[index];
+		if (bucket.isEmpty()) return;
+		// Swap in an empty list so shelves rescheduled into this same bucket are not visited twice.
+		this.buckets[index] = this.spare;
+		ShelfRefreshQueue queue = ShelfRefreshQueue.get(this.level);
+		for (int i = 0; i < bucket.size(); i += 2) {
+			long shelfPos = bucket.getLong(i);
+			int due = (int)bucket.getLong(i + 1);
+			if (!this.dueTicks.containsKey(shelfPos) || this.dueTicks.get(shelfPos) != due) continue;
+			if (due != tick) {
+				// Due on a later lap of the wheel.
+				this.buckets[index].add(shelfPos);
+				this.buckets[index].add(due);
+				continue;
+			}
+			this.dueTicks.remove(shelfPos);
+			queue.request(shelfPos);
+			this.fired++;
+		}
+		bucket.clear();
+		this.spare = bucket;
+	}
+
+	public int scheduledCount() {
+		return this.dueTicks.size();
+	}
+
+	public long firedCount() {
+		return this.fired;
+	}
+}
@@ -0,0 +1,96 @@
+package ninja.trek.glassshelf;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.Reference2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.List;
+import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Collects shelf display changes per chunk during a tick and flushes them as one
+ * {@link ShelfDisplayPayload} per chunk to each player tracking that chunk.
+ */
+public class ShelfSyncBatcher {
+	private static final Reference2ObjectOpenHashMap<ServerLevel, ShelfSyncBatcher> BATCHERS = new Reference2ObjectOpenHashMap<>();
+	private final ServerLevel level;
+	// Chunk -> shelves changed in it this tick, each with the union of its changed slot masks.
+	private final Long2ObjectOpenHashMap<Reference2IntLinkedOpenHashMap<GlassShelfBlockEntity>> changesByChunk = new Long2ObjectOpenHashMap<>();
+	private long payloadsSent;
+	private long entriesSent;
+
+	private ShelfSyncBatcher(ServerLevel level) {
+		this.level = level;
+	}
+
+	public static ShelfSyncBatcher get(ServerLevel level) {
+		ShelfSyncBatcher batcher = BATCHERS.get(level);
+		if (batcher == null) {
+			batcher = new ShelfSyncBatcher(level);
+			BATCHERS.put(level, batcher);
+		}
+		return batcher;
+	}
+
+	@Nullable
+	public static ShelfSyncBatcher getIfPresent(ServerLevel level) {
+		return BATCHERS.get(level);
+	}
+
+	public static void unload(ServerLevel level) {
+		BATCHERS.remove(level);
+	}
+
+	public void add(GlassShelfBlockEntity shelf, int changedMask) {
+		long chunkKey = ChunkPos.asLong(shelf.getBlockPos());
+		Reference2IntLinkedOpenHashMap<GlassShelfBlockEntity> changes = this.changesByChunk.get(chunkKey);
+		if (changes == null) {
+			changes = new Reference2IntLinkedOpenHashMap<>();
+			this.changesByChunk.put(chunkKey, changes);
+		}
+		changes.put(shelf, changes.getInt(shelf) | changedMask);
+	}
+
+	public void flush() {
+		if (this.changesByChunk.isEmpty()) return;
+		ObjectIterator<Long2ObjectMap.Entry<Reference2IntLinkedOpenHashMap<GlassShelfBlockEntity>>> chunks =
+			this.changesByChunk.long2ObjectEntrySet().fastIterator();
+		while (chunks.hasNext()) {
+			Long2ObjectMap.Entry<Reference2IntLinkedOpenHashMap<GlassShelfBlockEntity>> chunk = chunks.next();
+			ChunkPos chunkPos = new ChunkPos(chunk.getLongKey());
+			List<ShelfDisplayPayload.Entry> entries = new ArrayList<>(chunk.getValue().size());
+			ObjectIterator<Reference2IntMap.Entry<GlassShelfBlockEntity>> shelves = chunk.getValue().reference2IntEntrySet().fastIterator();
+			while (shelves.hasNext()) {
+				Reference2IntMap.Entry<GlassShelfBlockEntity> change = shelves.next();
+				GlassShelfBlockEntity shelf = change.getKey();
+				if (shelf.isRemoved()) continue;
+				entries.add(ShelfDisplayPayload.Entry.of(shelf.getBlockPos(), change.getIntValue(), shelf.getDisplayItems()));
+			}
+			if (entries.isEmpty()) continue;
+
+			ShelfDisplayPayload payload = new ShelfDisplayPayload(chunkPos, entries);
+			for (ServerPlayer player : PlayerLookup.tracking(this.level, chunkPos)) {
+				ServerPlayNetworking.send(player, payload);
+				this.payloadsSent++;
+				this.entriesSent += entries.size();
+			}
+		}
+		this.changesByChunk.clear();
+	}
+
+	public long payloadsSentCount() {
+		return this.payloadsSent;
+	}
+
+	public long entriesSentCount() {
+		return this.entriesSent;
+	}
+}
@@ -0,0 +1,24 @@
+package ninja.trek.glassshelf.mixin;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import ninja.trek.glassshelf.GlassShelfBlockEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(BlockEntity.class)
+public abstract class ContainerChangeShelfRefreshMixin {
+
+	// The instance setChanged() delegates here, and furnaces and brewing stands call it directly.
+	@Inject(method = "setChanged(Lnet/minecraft/world/level/Level;Lnet/minecraft/core/BlockPos;Lnet/minecraft/world/level/block/state/BlockState;)V", at = @At("HEAD"))
+	private static void glassShelf$onStaticSetChanged(Level level, BlockPos pos, BlockState state, CallbackInfo ci) {
+		if (level instanceof ServerLevel serverLevel) {
+			GlassShelfBlockEntity.markAttachedShelvesDirty(serverLevel, pos);
+		}
+	}
+}